@@ -0,0 +1,45 @@
+package io.github.robert_f_ruff.wildfly_configuration;
+
+import java.io.File;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+/**
+ * <p>Training run for the class data sharing archive produced by the <code>cds</code> build
+ * profile.</p>
+ * <p>Follows the same path as {@link Main} without needing a database server: it generates the
+ * configuration file, instantiates the JDBC driver through {@link DriverFactory}, and makes one
+ * connection attempt to a closed local port so that the driver's connection classes are loaded
+ * too. The attempt's failure is expected and ignored.</p>
+ * @author Robert F. Ruff
+ * @version 1.0
+ */
+public class CdsTraining {
+  /**
+   * The executable entry point into the training run.
+   * @param args Command line arguments; template_file, output_file and secrets_path in that order
+   *     as described in {@link Main#main(String[])}
+   */
+  public static void main(String[] args) {
+    try {
+      WildFlyConfigure converter = new WildFlyConfigure(new File(args[0]), new File(args[1]),
+          new File(args[2]));
+      converter.substitute();
+      System.out.println("Successfully created " + args[1]);
+      new WildFlyWait(new DriverFactory());
+      try {
+        DriverManager.getConnection("jdbc:mysql://127.0.0.1:1/rules?connectTimeout=1000",
+            converter.getdbUserName(), converter.getdbUserPassword()).close();
+      } catch (SQLException error) {
+        // Expected; nothing listens on the port
+      }
+    } catch (Exception error) {
+      System.err.println(error.getMessage());
+    }
+  }
+
+  // Ensure Jacoco reports accurate code coverage percentage
+  private CdsTraining() {
+
+  }
+}
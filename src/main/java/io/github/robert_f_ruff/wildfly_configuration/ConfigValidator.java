@@ -0,0 +1,402 @@
+package io.github.robert_f_ruff.wildfly_configuration;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * <p>Checks a generated configuration file for the mistakes that would otherwise only be reported
+ * after the WildFly server has spent its boot time reading it.</p>
+ * <p>The checks cover the YAML used by WildFly configuration files: block mappings, block
+ * sequences, quoted and plain scalars, block scalars, tags such as <code>!undefine</code>, anchors
+ * and aliases. A configuration file fails validation when</p>
+ * <ul>
+ *   <li>a line is indented with tabs or is indented under a key that already has a value;</li>
+ *   <li>a <code>${...}</code> placeholder is left unresolved;</li>
+ *   <li>an unquoted value contains <code>": "</code>, ends with a colon, or starts with a reserved
+ *       YAML indicator character;</li>
+ *   <li>an alias is malformed or refers to an anchor that has not been defined;</li>
+ *   <li>a quoted value is not terminated; or</li>
+ *   <li>a new data source, one that defines a <code>jndi-name</code> or a
+ *       <code>driver-name</code>, does not define a <code>connection-url</code>.</li>
+ * </ul>
+ * <p>Error messages identify the line and key but never the value, so secrets are not
+ * written to the container log.</p>
+ * @author Robert F. Ruff
+ * @version 1.0
+ */
+public class ConfigValidator {
+  /**
+   * Generated configuration file is not valid.
+   * @author Robert F. Ruff
+   * @version 1.0
+   */
+  public class ValidationException extends Exception {
+    /**
+     * New instance of ValidationException.
+     * @param message Text describing the error
+     */
+    public ValidationException(String message) {
+      super(message);
+    }
+  }
+
+  private record Entry(int indent, String path) {
+
+  }
+
+  private static final Pattern BLOCK_SCALAR = Pattern.compile("[|>][-+0-9]*");
+  private static final Pattern ALIAS = Pattern.compile("\\*[^\\s,\\[\\]{}]+");
+  private static final String RESERVED_START = "@`%,]}#";
+
+  /**
+   * Validate the lines of a generated configuration file.
+   * @param lines Lines of the configuration file
+   * @throws ValidationException The first error found in the configuration file
+   */
+  public void validate(List<String> lines) throws ValidationException {
+    validate(lines, index -> "Line " + (index + 1));
+  }
+
+  /**
+   * Validate the lines of a generated configuration file whose lines come from several files.
+   * @param lines Lines of the configuration file
+   * @param locator Names where the line at an index came from, used as the prefix of messages
+   * @throws ValidationException The first error found in the configuration file
+   */
+  public void validate(List<String> lines, IntFunction<String> locator)
+      throws ValidationException {
+    Deque<Entry> parents = new ArrayDeque<>();
+    Set<String> paths = new HashSet<>();
+    Set<String> valuedPaths = new HashSet<>();
+    Set<String> anchors = new HashSet<>();
+    int previousIndent = -1;
+    boolean previousHasValue = false;
+    int blockScalarIndent = -1;
+    for (int index = 0; index < lines.size(); index++) {
+      String line = lines.get(index);
+      int lineIndex = index;
+      // Named only when an error is reported
+      Supplier<String> location = () -> locator.apply(lineIndex);
+      int indent = 0;
+      while (indent < line.length() && line.charAt(indent) == ' ') {
+        indent++;
+      }
+      String content = line.substring(indent);
+      if (content.isBlank()) {
+        continue;
+      }
+      if (blockScalarIndent >= 0) {
+        if (indent > blockScalarIndent) {
+          continue;
+        }
+        blockScalarIndent = -1;
+      }
+      if (content.charAt(0) == '\t') {
+        throw new ValidationException(location.get() + ": tab character in indentation.");
+      }
+      if (content.startsWith("#") || content.equals("---")) {
+        continue;
+      }
+      if (content.contains("${")) {
+        throw new ValidationException(location.get() + ": unresolved placeholder.");
+      }
+      if (indent > previousIndent && previousIndent >= 0 && previousHasValue) {
+        throw new ValidationException(location.get()
+            + ": indented under a key that already has a value.");
+      }
+      boolean sequenceItem = false;
+      while (content.equals("-") || content.startsWith("- ")) {
+        if (!sequenceItem) {
+          while (!parents.isEmpty() && parents.peek().indent() > indent) {
+            parents.pop();
+          }
+        }
+        sequenceItem = true;
+        int dashLength = content.length() == 1 ? 1 : 2;
+        String rest = content.substring(dashLength);
+        int spaces = rest.length() - rest.stripLeading().length();
+        indent += dashLength + spaces;
+        content = rest.stripLeading();
+      }
+      previousIndent = indent;
+      previousHasValue = false;
+      if (content.isEmpty()) {
+        continue;
+      }
+      int separator = findKeySeparator(content);
+      if (separator < 0) {
+        if (!sequenceItem) {
+          throw new ValidationException(location.get() + ": expected a 'key: value' entry.");
+        }
+        String value = stripProperties(stripComment(content), location, "sequence item", anchors);
+        if (!value.isEmpty()) {
+          checkValue(value, location, "sequence item", anchors);
+          previousHasValue = true;
+        }
+        continue;
+      }
+      String key = unquote(content.substring(0, separator).strip());
+      while (!parents.isEmpty() && parents.peek().indent() >= indent) {
+        parents.pop();
+      }
+      String path = (parents.isEmpty() ? "" : parents.peek().path()) + "/" + key;
+      paths.add(path);
+      parents.push(new Entry(indent, path));
+      String rawValue = content.substring(separator + 1);
+      if (!stripComment(rawValue).isEmpty()) {
+        valuedPaths.add(path);
+      }
+      String value = stripProperties(stripComment(rawValue).strip(), location, key, anchors);
+      if (value.isEmpty()) {
+        if (rawValue.strip().startsWith("#") && !hasChild(lines, index, indent)) {
+          throw new ValidationException(location.get() + ": value of " + key
+              + " is a comment; quote values that start with '#'.");
+        }
+        continue;
+      }
+      if (BLOCK_SCALAR.matcher(value).matches()) {
+        blockScalarIndent = indent;
+        continue;
+      }
+      checkValue(value, location, key, anchors);
+      previousHasValue = true;
+    }
+    for (String path : paths) {
+      int last = path.lastIndexOf('/');
+      // Entries with a value, such as !remove, and entries that only change attributes of a data
+      // source defined elsewhere are not new data sources
+      if (path.substring(0, last).endsWith("/data-source") && !valuedPaths.contains(path)
+          && (paths.contains(path + "/jndi-name") || paths.contains(path + "/driver-name"))
+          && !paths.contains(path + "/connection-url")) {
+        throw new ValidationException("Data source " + path.substring(last + 1)
+            + " does not define connection-url.");
+      }
+    }
+  }
+
+  private String stripProperties(String value, Supplier<String> location, String key,
+      Set<String> anchors) throws ValidationException {
+    while (!value.isEmpty() && (value.charAt(0) == '!' || value.charAt(0) == '&')) {
+      int end = value.indexOf(' ');
+      String token = end < 0 ? value : value.substring(0, end);
+      if (token.charAt(0) == '&') {
+        if (token.length() == 1) {
+          throw new ValidationException(location.get() + ": value of " + key
+              + " has an anchor without a name; quote it.");
+        }
+        anchors.add(token.substring(1));
+      }
+      value = end < 0 ? "" : value.substring(end).strip();
+    }
+    return value;
+  }
+
+  private void checkValue(String value, Supplier<String> location, String key,
+      Set<String> anchors) throws ValidationException {
+    char first = value.charAt(0);
+    if (first == '*') {
+      if (!ALIAS.matcher(value).matches()) {
+        throw new ValidationException(location.get() + ": value of " + key
+            + " is not a well-formed alias; quote it.");
+      } else if (!anchors.contains(value.substring(1))) {
+        throw new ValidationException(location.get() + ": value of " + key
+            + " refers to an undefined anchor; quote it.");
+      }
+    } else if (first == '"' || first == '\'') {
+      if (!isQuoted(value)) {
+        throw new ValidationException(location.get() + ": value of " + key
+            + " has unbalanced quotes.");
+      }
+    } else if (first == '[' || first == '{') {
+      if (value.charAt(value.length() - 1) != (first == '[' ? ']' : '}')) {
+        throw new ValidationException(location.get() + ": value of " + key
+            + " starts with '" + first + "' but is not a flow collection; quote it.");
+      }
+    } else if (RESERVED_START.indexOf(first) >= 0 || first == '|' || first == '>'
+        || value.equals("-") || value.startsWith("- ") || value.startsWith("? ")) {
+      throw new ValidationException(location.get() + ": value of " + key
+          + " starts with the YAML indicator '" + first + "'; quote it.");
+    } else if (value.contains(": ") || value.endsWith(":")) {
+      throw new ValidationException(location.get() + ": value of " + key
+          + " contains ': ' or ends with ':'; quote it.");
+    }
+  }
+
+  /**
+   * Find the lines of a template that are the content of a block scalar.
+   * @param lines Lines of the template
+   * @return For each line, whether it is the content of a block scalar
+   */
+  static boolean[] findBlockScalarLines(List<String> lines) {
+    boolean[] blockScalarLines = new boolean[lines.size()];
+    int blockScalarIndent = -1;
+    for (int index = 0; index < lines.size(); index++) {
+      String line = lines.get(index);
+      int indent = 0;
+      while (indent < line.length() && line.charAt(indent) == ' ') {
+        indent++;
+      }
+      if (blockScalarIndent >= 0) {
+        if (line.isBlank() || indent > blockScalarIndent) {
+          blockScalarLines[index] = true;
+          continue;
+        }
+        blockScalarIndent = -1;
+      }
+      int valueStart = findValueStart(line);
+      if (BLOCK_SCALAR.matcher(stripComment(line.substring(valueStart))).matches()) {
+        blockScalarIndent = indent;
+      }
+    }
+    return blockScalarLines;
+  }
+
+  /**
+   * Check that a secret can be substituted into a template line without changing the meaning of
+   * the line.
+   * @param line Template line containing the placeholder
+   * @param position Index of the placeholder in the line
+   * @param secret Value of the secret
+   * @return Why the secret needs quoting in the template, or null if it can be substituted
+   */
+  static String checkPlacement(String line, int position, String secret) {
+    int valueStart = findValueStart(line);
+    char first = valueStart < line.length() ? line.charAt(valueStart) : ' ';
+    if ((first == '"' || first == '\'') && position > valueStart) {
+      int close = findClosingQuote(line.substring(valueStart));
+      if (close < 0 || position < valueStart + close) {
+        if (first == '"' && (secret.indexOf('"') >= 0 || secret.indexOf('\\') >= 0)) {
+          return "contains '\"' or '\\' inside double quotes";
+        } else if (first == '\'' && secret.indexOf('\'') >= 0) {
+          return "contains ''' inside single quotes";
+        }
+        return null;
+      }
+    }
+    if (secret.contains(" #")) {
+      return "contains ' #'";
+    } else if (secret.contains(": ")) {
+      return "contains ': '";
+    } else if (position == valueStart && startsWithIndicator(secret)) {
+      return "starts with a YAML indicator character";
+    }
+    return null;
+  }
+
+  private static boolean startsWithIndicator(String secret) {
+    if (secret.isEmpty()) {
+      return false;
+    }
+    char first = secret.charAt(0);
+    if ("-?:".indexOf(first) >= 0) {
+      return secret.length() == 1 || secret.charAt(1) == ' ';
+    }
+    return RESERVED_START.indexOf(first) >= 0 || "[{|>!&*'\"".indexOf(first) >= 0;
+  }
+
+  private static int findValueStart(String line) {
+    int position = skipSpaces(line, 0);
+    while (line.startsWith("- ", position) || line.substring(position).equals("-")) {
+      position = skipSpaces(line, position + 1);
+    }
+    if (position < line.length()) {
+      int separator = findKeySeparator(line.substring(position));
+      if (separator >= 0) {
+        position = skipSpaces(line, position + separator + 1);
+      }
+    }
+    while (position < line.length()
+        && (line.charAt(position) == '!' || line.charAt(position) == '&')) {
+      int end = line.indexOf(' ', position);
+      position = end < 0 ? line.length() : skipSpaces(line, end);
+    }
+    return position;
+  }
+
+  private static int skipSpaces(String line, int position) {
+    while (position < line.length() && line.charAt(position) == ' ') {
+      position++;
+    }
+    return position;
+  }
+
+  private static int findKeySeparator(String content) {
+    int start = 0;
+    char first = content.charAt(0);
+    if (first == '"' || first == '\'') {
+      int close = findClosingQuote(content);
+      if (close < 0) {
+        return -1;
+      }
+      start = close + 1;
+    }
+    for (int position = start; position < content.length(); position++) {
+      char next = content.charAt(position);
+      if (next == '#' && position > 0 && content.charAt(position - 1) == ' ') {
+        return -1;
+      }
+      if (next == ':' && (position + 1 == content.length() || content.charAt(position + 1) == ' ')) {
+        return position;
+      }
+    }
+    return -1;
+  }
+
+  private static int findClosingQuote(String value) {
+    char quote = value.charAt(0);
+    for (int position = 1; position < value.length(); position++) {
+      char next = value.charAt(position);
+      if (quote == '"' && next == '\\') {
+        position++;
+      } else if (next == quote) {
+        if (quote == '\'' && position + 1 < value.length() && value.charAt(position + 1) == '\'') {
+          position++;
+        } else {
+          return position;
+        }
+      }
+    }
+    return -1;
+  }
+
+  private static boolean isQuoted(String value) {
+    return findClosingQuote(value) == value.length() - 1;
+  }
+
+  private static String stripComment(String value) {
+    String stripped = value.strip();
+    int start = 0;
+    if (!stripped.isEmpty() && (stripped.charAt(0) == '"' || stripped.charAt(0) == '\'')) {
+      int close = findClosingQuote(stripped);
+      start = close < 0 ? stripped.length() : close + 1;
+    } else if (stripped.startsWith("#")) {
+      return "";
+    }
+    int comment = stripped.indexOf(" #", start);
+    return comment < 0 ? stripped : stripped.substring(0, comment).strip();
+  }
+
+  private static String unquote(String key) {
+    if (key.length() >= 2 && (key.charAt(0) == '"' || key.charAt(0) == '\'')) {
+      return key.substring(1, key.length() - 1);
+    }
+    return key;
+  }
+
+  private static boolean hasChild(List<String> lines, int index, int indent) {
+    for (int next = index + 1; next < lines.size(); next++) {
+      String line = lines.get(next);
+      String content = line.strip();
+      if (!content.isEmpty() && !content.startsWith("#")) {
+        return line.length() - line.stripLeading().length() > indent || content.startsWith("- ");
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,89 @@
+package io.github.robert_f_ruff.wildfly_configuration;
+
+import java.io.File;
+
+/**
+ * <p>Runs the program logic as a Java agent inside the WildFly server's own JVM.</p>
+ * <p>When the utility's JAR file is passed to the WildFly server's JVM with the
+ * <code>-javaagent</code> option, the configuration file is generated and the database server
+ * verified before the WildFly server's main class starts, so the container does not have to start
+ * and tear down a separate JVM. The agent arguments are the template file, the output file and the
+ * secrets path, optionally followed by the fragment path, separated by commas:</p>
+ * <pre>-javaagent:wildfly-configuration.jar=&lt;template_file&gt;,&lt;output_file&gt;,&lt;secrets_path&gt;[,&lt;fragment_path&gt;]</pre>
+ * <p>Any error aborts the JVM so that the WildFly server never boots with a missing or partial
+ * configuration file.</p>
+ * @author Robert F. Ruff
+ * @version 1.0
+ */
+public class ConfigureAgent {
+  /**
+   * Error occurred while configuring the WildFly server from the agent.
+   * @author Robert F. Ruff
+   * @version 1.0
+   */
+  public static class AgentException extends RuntimeException {
+    /**
+     * New instance of AgentException.
+     * @param message Text describing the error
+     * @param cause Exception that was captured while configuring the WildFly server
+     */
+    public AgentException(String message, Throwable cause) {
+      super(message, cause);
+    }
+  }
+
+  /**
+   * The agent entry point, invoked by the JVM before the WildFly server's main class.
+   * @param agentArgs Template file, output file, secrets path and optional fragment path separated
+   *     by commas
+   * @throws AgentException Configuration file could not be generated or the JDBC driver could not
+   *     be located
+   */
+  public static void premain(String agentArgs) {
+    try {
+      String[] args = (agentArgs == null ? "" : agentArgs).split(",", -1);
+      if (args.length != 3 && args.length != 4) {
+        throw new IllegalArgumentException("Expected 3 or 4 agent arguments but found " + args.length + ".");
+      }
+      WildFlyConfigure converter = new WildFlyConfigure(new File(args[0]), new File(args[1]),
+          new File(args[2]));
+      if (args.length > 3) {
+        converter.setFragmentPath(new File(args[3]));
+      }
+      converter.substitute();
+      System.out.println("Successfully created " + args[1]);
+      WildFlyWait waiter = new WildFlyWait(new DriverFactory());
+      waiter.waitForServer(converter.getdbServerAddress(), converter.getdbServerPort(),
+          converter.getdbUserName(), converter.getdbUserPassword());
+    } catch (Exception error) {
+      System.err.println(error.getMessage());
+      printUsage();
+      throw new AgentException(error.getMessage(), error);
+    }
+  }
+
+  private static void printUsage() {
+    String help = """
+        NAME: WildFlyConfigure
+
+        SYNOPSIS
+            java -javaagent:WildFlyConfigure.jar=<template_file>,<output_file>,<secrets_path>[,<fragment_path>] ...
+
+        DESCRIPTION
+            Populates a WildFly configuration YAML file template with the defined secrets
+            before the WildFly server starts.
+
+            <template_file>: File name and path to the template file.
+            <output_file>: File name and path to place the populated configuration file.
+            <secrets_path>: Path where the secrets files are mounted.
+            <fragment_path>: Optional path of the included fragment files; defaults to the
+                             template file's path.
+        """;
+    System.out.println(help);
+  }
+
+  // Ensure Jacoco reports accurate code coverage percentage
+  private ConfigureAgent() {
+
+  }
+}
@@ -44,6 +44,12 @@ public class Main {
    *       <td>secrets_path</td>
    *       <td>Path where the secrets files are mounted (i.e., /run/secrets)</td>
    *     </tr>
+   *     <tr>
+   *       <th scope="row">args[3]</th>
+   *       <td>fragment_path</td>
+   *       <td>Optional path of the fragment files named by include directives; defaults to the
+   *           template file's path</td>
+   *     </tr>
    *   </tbody>
    * </table>
    */
@@ -51,6 +57,9 @@ public class Main {
     try {
       WildFlyConfigure converter = new WildFlyConfigure(new File(args[0]), new File(args[1]),
           new File(args[2]));
+      if (args.length > 3) {
+        converter.setFragmentPath(new File(args[3]));
+      }
       converter.substitute();
       System.out.println("Successfully created " + args[1]);
       WildFlyWait waiter = new WildFlyWait(new DriverFactory());
@@ -67,7 +76,7 @@ public class Main {
         NAME: WildFlyConfigure
 
         SYNOPSIS
-            java -jar WildFlyConfigure.jar <template_file> <output_file> <secrets_path>
+            java -jar WildFlyConfigure.jar <template_file> <output_file> <secrets_path> [<fragment_path>]
 
         DESCRIPTION
             Populates a WildFly configuration YAML file template with the defined secrets.
@@ -75,6 +84,8 @@ public class Main {
             <template_file>: File name and path to the template file.
             <output_file>: File name and path to place the populated configuration file.
             <secrets_path>: Path where the secrets files are mounted.
+            <fragment_path>: Optional path of the included fragment files; defaults to the
+                             template file's path.
         """;
     System.out.println(help);
   }
@@ -0,0 +1,56 @@
+package io.github.robert_f_ruff.wildfly_configuration;
+
+import java.io.File;
+
+/**
+ * <p>Generate the configuration file without waiting for the database server.</p>
+ * <p>Useful where no database server is reachable, such as build servers.</p>
+ * @author Robert F. Ruff
+ * @version 1.0
+ */
+public class Render {
+  /**
+   * The executable entry point into the render only mode.
+   * @param args Command line arguments; template_file, output_file, secrets_path and the optional
+   *     fragment_path in that order as described in {@link Main#main(String[])}
+   */
+  public static void main(String[] args) {
+    try {
+      WildFlyConfigure converter = new WildFlyConfigure(new File(args[0]), new File(args[1]),
+          new File(args[2]));
+      if (args.length > 3) {
+        converter.setFragmentPath(new File(args[3]));
+      }
+      converter.substitute();
+      System.out.println("Successfully created " + args[1]);
+    } catch (Exception error) {
+      System.err.println(error.getMessage());
+      printUsage();
+    }
+  }
+
+  private static void printUsage() {
+    String help = """
+        NAME: Render
+
+        SYNOPSIS
+            java -cp WildFlyConfigure.jar io.github.robert_f_ruff.wildfly_configuration.Render <template_file> <output_file> <secrets_path> [<fragment_path>]
+
+        DESCRIPTION
+            Populates a WildFly configuration YAML file template with the defined secrets
+            without waiting for the database server.
+
+            <template_file>: File name and path to the template file.
+            <output_file>: File name and path to place the populated configuration file.
+            <secrets_path>: Path where the secrets files are mounted.
+            <fragment_path>: Optional path of the included fragment files; defaults to the
+                             template file's path.
+        """;
+    System.out.println(help);
+  }
+
+  // Ensure Jacoco reports accurate code coverage percentage
+  private Render() {
+
+  }
+}
@@ -0,0 +1,93 @@
+package io.github.robert_f_ruff.wildfly_configuration;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds the template files, fragment files and secrets read from disk so that multiple
+ * WildFlyConfigure instances running in the same JVM do not have to read them again. A template,
+ * fragment or secret is read again if its file has been modified since it was cached.
+ * @author Robert F. Ruff
+ * @version 1.0
+ */
+public class RenderCache {
+  private record Template(long lastModified, List<String> lines) {
+
+  }
+
+  private record Secret(long lastModified, String value) {
+
+  }
+
+  private ConcurrentHashMap<String, Template> templates;
+  private ConcurrentHashMap<String, Secret> secrets;
+
+  /**
+   * Returns the lines of a template or fragment file.
+   * @param templateFile Path and name of the template or fragment file
+   * @return Unmodifiable list of the file's lines
+   * @throws FileNotFoundException File does not exist
+   * @throws IOException Error while reading from the file
+   */
+  public List<String> getTemplate(File templateFile) throws FileNotFoundException, IOException {
+    String key = templateFile.getAbsolutePath();
+    long lastModified = templateFile.lastModified();
+    Template template = templates.get(key);
+    if (template == null || template.lastModified() != lastModified) {
+      List<String> lines = new ArrayList<>();
+      try (BufferedReader templateReader = new BufferedReader(new FileReader(templateFile))) {
+        String line;
+        while ((line = templateReader.readLine()) != null) {
+          lines.add(line);
+        }
+      }
+      template = new Template(lastModified, Collections.unmodifiableList(lines));
+      templates.put(key, template);
+    }
+    return template.lines();
+  }
+
+  /**
+   * Returns the first line of a secret file. A secret is read again if its file has been modified
+   * since it was cached, so rotated secrets are picked up. Undefined secrets are not cached.
+   * @param secretPath Path where the secrets are mounted
+   * @param secretName Name of the secret
+   * @return Value of the secret or null if the secret file is empty
+   * @throws FileNotFoundException Secret file does not exist
+   * @throws IOException Error while reading from the secret file
+   */
+  public String getSecret(File secretPath, String secretName) throws FileNotFoundException, IOException {
+    File secretFile = new File(secretPath, secretName);
+    String key = secretFile.getAbsolutePath();
+    long lastModified = secretFile.lastModified();
+    Secret secret = secrets.get(key);
+    if (secret == null || secret.lastModified() != lastModified) {
+      String value;
+      try (BufferedReader secretReader = new BufferedReader(new FileReader(secretFile))) {
+        value = secretReader.readLine();
+      }
+      if (value == null) {
+        secrets.remove(key);
+        return null;
+      }
+      secret = new Secret(lastModified, value);
+      secrets.put(key, secret);
+    }
+    return secret.value();
+  }
+
+  /**
+   * New instance of RenderCache.
+   */
+  public RenderCache() {
+    templates = new ConcurrentHashMap<>();
+    secrets = new ConcurrentHashMap<>();
+  }
+}
@@ -0,0 +1,104 @@
+package io.github.robert_f_ruff.wildfly_configuration;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+
+/**
+ * Sends a render or wait request to a running {@link RenderDaemon} and reports its response.
+ * @author Robert F. Ruff
+ * @version 1.0
+ */
+public class RenderClient {
+  /**
+   * Error reported by the daemon while executing a request.
+   * @author Robert F. Ruff
+   * @version 1.0
+   */
+  public static class DaemonException extends Exception {
+    /**
+     * New instance of DaemonException.
+     * @param message Text describing the error
+     */
+    public DaemonException(String message) {
+      super(message);
+    }
+  }
+
+  /**
+   * Send a request to the daemon and wait for its response.
+   * @param socketPath Path of the daemon's Unix domain socket
+   * @param command Either render or wait
+   * @param templateFile Path and name of the template file
+   * @param configFile Path and name of the configuration file to generate
+   * @param secretPath Path where the secrets are mounted
+   * @param fragmentPath Path of the fragment files, or null to use the template file's path
+   * @return Message returned by the daemon
+   * @throws IOException Error while communicating with the daemon
+   * @throws DaemonException Daemon could not execute the request
+   */
+  public static String send(Path socketPath, String command, File templateFile, File configFile,
+      File secretPath, File fragmentPath) throws IOException, DaemonException {
+    String request = String.join("\t", command, templateFile.getAbsolutePath(),
+        configFile.getAbsolutePath(), secretPath.getAbsolutePath());
+    if (fragmentPath != null) {
+      request += "\t" + fragmentPath.getAbsolutePath();
+    }
+    try (SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+      channel.connect(UnixDomainSocketAddress.of(socketPath));
+      RenderDaemon.writeLine(channel, request);
+      String response = RenderDaemon.readLine(channel);
+      if (response.startsWith("OK ")) {
+        return response.substring(3);
+      } else if (response.startsWith("ERROR ")) {
+        throw new DaemonException(response.substring(6));
+      } else {
+        throw new DaemonException("Unexpected response: " + response);
+      }
+    }
+  }
+
+  /**
+   * The executable entry point into the client.
+   * @param args Command line arguments; socket_path, command, template_file, output_file,
+   *     secrets_path and the optional fragment_path in that order
+   */
+  public static void main(String[] args) {
+    try {
+      System.out.println(send(Path.of(args[0]), args[1], new File(args[2]), new File(args[3]),
+          new File(args[4]), args.length > 5 ? new File(args[5]) : null));
+    } catch (Exception error) {
+      System.err.println(error.getMessage());
+      printUsage();
+    }
+  }
+
+  private static void printUsage() {
+    String help = """
+        NAME: RenderClient
+
+        SYNOPSIS
+            java -cp WildFlyConfigure.jar io.github.robert_f_ruff.wildfly_configuration.RenderClient <socket_path> <command> <template_file> <output_file> <secrets_path> [<fragment_path>]
+
+        DESCRIPTION
+            Asks a running RenderDaemon to populate a WildFly configuration YAML file template.
+
+            <socket_path>: File name and path of the daemon's Unix domain socket.
+            <command>: render to generate the file, wait to also wait for the database server.
+            <template_file>: File name and path to the template file.
+            <output_file>: File name and path to place the populated configuration file.
+            <secrets_path>: Path where the secrets files are mounted.
+            <fragment_path>: Optional path of the included fragment files; defaults to the
+                             template file's path.
+        """;
+    System.out.println(help);
+  }
+
+  // Ensure Jacoco reports accurate code coverage percentage
+  private RenderClient() {
+
+  }
+}
@@ -0,0 +1,211 @@
+package io.github.robert_f_ruff.wildfly_configuration;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import io.github.robert_f_ruff.wildfly_configuration.ConfigValidator.ValidationException;
+import io.github.robert_f_ruff.wildfly_configuration.WildFlyConfigure.SecretException;
+import io.github.robert_f_ruff.wildfly_configuration.WildFlyConfigure.TemplateException;
+import io.github.robert_f_ruff.wildfly_configuration.WildFlyWait.WaitException;
+
+/**
+ * <p>Keeps a single JVM running that serves render and wait requests over a Unix domain socket.</p>
+ * <p>Templates, secrets and the JDBC driver are loaded once and reused by every request, so a
+ * container start only pays for the {@link RenderClient} that sends the request. Each request is a
+ * single line of tab separated fields:</p>
+ * <pre>&lt;command&gt;\t&lt;template_file&gt;\t&lt;output_file&gt;\t&lt;secrets_path&gt;[\t&lt;fragment_path&gt;]\n</pre>
+ * <p>where the fragment path is optional and command is either <code>render</code>, which generates the configuration file, or
+ * <code>wait</code>, which generates the configuration file and then blocks until the database
+ * server accepts connections. The response is a single line that starts with <code>OK</code> or
+ * <code>ERROR</code> followed by a message.</p>
+ * @author Robert F. Ruff
+ * @version 1.0
+ */
+public class RenderDaemon implements Closeable {
+  private Path socketPath;
+  private ServerSocketChannel server;
+  private RenderCache cache;
+  private WildFlyWait waiter;
+
+  /**
+   * Accept requests until the daemon is closed. Each request is handled on its own virtual thread.
+   */
+  public void serve() {
+    while (server.isOpen()) {
+      try {
+        SocketChannel client = server.accept();
+        Thread.ofVirtual().start(() -> handle(client));
+      } catch (IOException error) {
+        if (server.isOpen()) {
+          System.err.println(error.getMessage());
+        }
+      }
+    }
+  }
+
+  /**
+   * Stop accepting requests and remove the socket file.
+   * @throws IOException Error while closing the socket or removing the socket file
+   */
+  @Override
+  public void close() throws IOException {
+    server.close();
+    Files.deleteIfExists(socketPath);
+  }
+
+  /**
+   * Execute a single request.
+   * @param request Tab separated command, template file, output file, secrets path and optional
+   *     fragment path
+   * @return Message describing the result of the request
+   * @throws FileNotFoundException Template file, configuration file path or secrets path does not exist
+   * @throws IOException Error while reading from or writing to a file
+   * @throws SecretException Error while reading the contents of a secret file
+   * @throws TemplateException Include directive is malformed or includes itself
+   * @throws ValidationException Generated configuration would be rejected by the WildFly server
+   * @throws IllegalArgumentException Request is malformed or contains an unknown command
+   */
+  String process(String request) throws FileNotFoundException, IOException, SecretException,
+      TemplateException, ValidationException, IllegalArgumentException {
+    String[] fields = request.split("\t", -1);
+    if (fields.length != 4 && fields.length != 5) {
+      throw new IllegalArgumentException("Malformed request: " + request);
+    }
+    if (!fields[0].equals("render") && !fields[0].equals("wait")) {
+      throw new IllegalArgumentException("Unknown command: " + fields[0]);
+    }
+    WildFlyConfigure converter = new WildFlyConfigure(new File(fields[1]), new File(fields[2]),
+        new File(fields[3]), cache);
+    if (fields.length == 5) {
+      converter.setFragmentPath(new File(fields[4]));
+    }
+    converter.substitute();
+    if (fields[0].equals("wait")) {
+      waiter.waitForServer(converter.getdbServerAddress(), converter.getdbServerPort(),
+          converter.getdbUserName(), converter.getdbUserPassword());
+      return "Successfully created " + fields[2] + " and verified connection to database";
+    }
+    return "Successfully created " + fields[2];
+  }
+
+  private void handle(SocketChannel client) {
+    try (client) {
+      String response;
+      try {
+        response = "OK " + process(readLine(client));
+      } catch (Exception error) {
+        response = "ERROR " + error.getMessage();
+      }
+      writeLine(client, response);
+    } catch (IOException error) {
+      System.err.println(error.getMessage());
+    }
+  }
+
+  /**
+   * Read a single line terminated by a newline from the channel.
+   * @param channel Connected socket channel
+   * @return Line without the terminating newline
+   * @throws IOException Error while reading from the channel
+   */
+  static String readLine(SocketChannel channel) throws IOException {
+    ByteArrayOutputStream line = new ByteArrayOutputStream();
+    ByteBuffer buffer = ByteBuffer.allocate(1024);
+    while (channel.read(buffer) != -1) {
+      buffer.flip();
+      while (buffer.hasRemaining()) {
+        byte next = buffer.get();
+        if (next == '\n') {
+          return line.toString(StandardCharsets.UTF_8);
+        }
+        line.write(next);
+      }
+      buffer.clear();
+    }
+    return line.toString(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Write a single line to the channel. Embedded newlines are replaced by spaces.
+   * @param channel Connected socket channel
+   * @param line Text to send
+   * @throws IOException Error while writing to the channel
+   */
+  static void writeLine(SocketChannel channel, String line) throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap((line.replace('\n', ' ') + "\n")
+        .getBytes(StandardCharsets.UTF_8));
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  /**
+   * The executable entry point into the daemon.
+   * @param args Command line arguments; args[0] is the path of the Unix domain socket to create
+   */
+  public static void main(String[] args) {
+    try (RenderDaemon daemon = new RenderDaemon(Path.of(args[0]), new DriverFactory())) {
+      Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+        try {
+          daemon.close();
+        } catch (IOException error) {
+          // Don't care
+        }
+      }));
+      System.out.println("Listening on " + args[0]);
+      daemon.serve();
+    } catch (Exception error) {
+      System.err.println(error.getMessage());
+      printUsage();
+    }
+  }
+
+  private static void printUsage() {
+    String help = """
+        NAME: RenderDaemon
+
+        SYNOPSIS
+            java -cp WildFlyConfigure.jar io.github.robert_f_ruff.wildfly_configuration.RenderDaemon <socket_path>
+
+        DESCRIPTION
+            Serves render and wait requests from RenderClient over a Unix domain socket.
+
+            <socket_path>: File name and path of the Unix domain socket to create.
+        """;
+    System.out.println(help);
+  }
+
+  /**
+   * New instance of RenderDaemon. Any file already present at the socket path is replaced and the
+   * socket is made accessible to its owner only.
+   * @param socketPath Path of the Unix domain socket to create
+   * @param factory Factory that will instantiate the JDBC driver
+   * @throws IOException Error while creating the socket
+   * @throws WaitException Error while instantiating the JDBC driver
+   */
+  public RenderDaemon(Path socketPath, JDBCFactory factory) throws IOException, WaitException {
+    this.waiter = new WildFlyWait(factory);
+    this.cache = new RenderCache();
+    this.socketPath = socketPath;
+    Files.deleteIfExists(socketPath);
+    server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+    server.bind(UnixDomainSocketAddress.of(socketPath));
+    try {
+      Files.setPosixFilePermissions(socketPath, PosixFilePermissions.fromString("rw-------"));
+    } catch (UnsupportedOperationException error) {
+      // File system does not support POSIX permissions
+    }
+  }
+}
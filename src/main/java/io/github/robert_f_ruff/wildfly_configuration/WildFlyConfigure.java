@@ -1,15 +1,31 @@
 package io.github.robert_f_ruff.wildfly_configuration;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import io.github.robert_f_ruff.wildfly_configuration.ConfigValidator.ValidationException;
+
 /**
  * Given a template file, a name and path for the configuration file, and the path where the
  * secrets are mounted, this class will generate the WildFly configuration yaml file.
@@ -32,13 +48,46 @@ public class WildFlyConfigure {
     }
   }
 
+  /**
+   * Error occurred while expanding the include directives of a template file.
+   * @author Robert F. Ruff
+   * @version 1.0
+   */
+  public class TemplateException extends Exception {
+    /**
+     * New instance of TemplateException.
+     * @param message Text describing the error
+     */
+    public TemplateException(String message) {
+      super(message);
+    }
+  }
+
+  private record SourceLine(String file, int line) {
+    @Override
+    public String toString() {
+      return file + ":" + line;
+    }
+  }
+
+  @FunctionalInterface
+  private interface ChunkTask<T> {
+    T run(int start, int end) throws IOException, SecretException;
+  }
+
+  private static final int CHUNK_LINES = 4096;
+  private static final Pattern SECRET_NAME = Pattern.compile("\\$\\{(.+?)\\}");
+  private static final Pattern INCLUDE_DIRECTIVE = Pattern.compile("^(\\s*)\\$\\{include:(.+?)\\}\\s*$");
+  private static final String INCLUDE_PREFIX = "${include:";
   private File templateFile;
+  private File fragmentPath;
   private File configFile;
   private File secretPath;
   private String dbServerAddress;
   private String dbServerPort;
   private String dbUserName;
   private String dbUserPassword;
+  private RenderCache cache;
   
   /**
    * Returns the database server's address retrieved from the secret file.
@@ -73,51 +122,246 @@ public class WildFlyConfigure {
   }
 
   /**
-   * Generates the WildFly yaml configuration file.
+   * Sets the path where the fragment files named by include directives are located. Defaults to
+   * the template file's path.
+   * @param fragmentPath Path where the fragment files are located
+   * @throws FileNotFoundException Fragment path does not exist
+   */
+  public void setFragmentPath(File fragmentPath) throws FileNotFoundException {
+    if (fragmentPath.exists()) {
+      this.fragmentPath = fragmentPath;
+    } else {
+      throw new FileNotFoundException("Fragment path " + fragmentPath.getAbsolutePath() + " does not exist.");
+    }
+  }
+
+  /**
+   * Generates the WildFly yaml configuration file. A line that contains only
+   * <code>${include:fragment_name}</code> is replaced by the lines of that fragment file, indented
+   * to the directive's column; fragments may include other fragments. The file is written only
+   * after every secret has been resolved and the result has passed {@link ConfigValidator}; it is
+   * written to a temporary file in the same directory and then moved into place. If any error
+   * occurs, an existing configuration file is deleted so that the WildFly server cannot boot with
+   * a previous run's configuration. If the configuration file is a named pipe (FIFO), it is written
+   * directly and this method blocks until a reader opens the pipe and consumes its contents.
+   * Each secret is read once per call. Templates longer than 4096 lines are scanned, rendered and
+   * encoded in chunks of that size on the common fork-join pool.
    * @since 1.0
    * @throws FileNotFoundException Template file or secrets path no longer exists since this class was instantiated
    * @throws IOException Error while reading from or writing to a file
    * @throws SecretException Error while reading the contents of a secret file
+   * @throws TemplateException Include directive is malformed or includes itself
+   * @throws ValidationException Generated configuration would be rejected by the WildFly server
    */
-  public void substitute() throws FileNotFoundException, IOException, SecretException {
-    Pattern secretName = Pattern.compile("\\$\\{(.+?)\\}");
-    try (BufferedReader templateReader = new BufferedReader(new FileReader(templateFile));
-        BufferedWriter configWriter = new BufferedWriter(new FileWriter(configFile))) {
-      String line;
-      while ((line = templateReader.readLine()) != null) {
-        Matcher secretMatcher = secretName.matcher(line);
-        while (secretMatcher.find()) {
-          String secret = "";
-          try (BufferedReader secretReader = new BufferedReader(new FileReader(
-              new File(secretPath, secretMatcher.group(1))))) {
-            secret = secretReader.readLine();
-          } catch (FileNotFoundException error) {
-            throw new SecretException("Missing secret file: " + secretMatcher.group(1));
-          }
-          if (secret != null && secret != "") {
-            switch (secretMatcher.group(1)) {
-              case "db_host":
-                dbServerAddress = secret;
-                break;
-              case "db_host_port":
-                dbServerPort = secret;
-                break;
-              case "db_user_name":
-                dbUserName = secret;
-                break;
-              case "db_user_password":
-                dbUserPassword = secret;
-                break;
-            }
-            line = line.replaceAll("\\$\\{" + secretMatcher.group(1) + "\\}", secret);
-          } else {
-            throw new SecretException("Undefined secret: " + secretMatcher.group(1));
-          }
+  public void substitute() throws FileNotFoundException, IOException, SecretException,
+      TemplateException, ValidationException {
+    try {
+      generate();
+    } catch (Exception error) {
+      // Never leave a previous run's configuration for the WildFly server to boot with
+      if (Files.isRegularFile(configFile.toPath())) {
+        Files.deleteIfExists(configFile.toPath());
+      }
+      throw error;
+    }
+  }
+
+  private void generate() throws FileNotFoundException, IOException, SecretException,
+      TemplateException, ValidationException {
+    List<String> templateLines = new ArrayList<>();
+    List<SourceLine> sources = new ArrayList<>();
+    expand(cache.getTemplate(templateFile), templateFile.getName(), "", templateLines, sources,
+        new ArrayList<>());
+    int lineCount = templateLines.size();
+    // Resolve each secret once, so every line and the database fields see the same value
+    Map<String, String> secrets = new HashMap<>();
+    for (Set<String> names : forEachChunk(lineCount,
+        (start, end) -> findSecretNames(templateLines.subList(start, end)))) {
+      for (String name : names) {
+        if (!secrets.containsKey(name)) {
+          secrets.put(name, resolveSecret(name));
         }
-        configWriter.write(line, 0, line.length());
-        configWriter.newLine();
       }
     }
+    dbServerAddress = secrets.getOrDefault("db_host", dbServerAddress);
+    dbServerPort = secrets.getOrDefault("db_host_port", dbServerPort);
+    dbUserName = secrets.getOrDefault("db_user_name", dbUserName);
+    dbUserPassword = secrets.getOrDefault("db_user_password", dbUserPassword);
+    boolean[] blockScalarLines = ConfigValidator.findBlockScalarLines(templateLines);
+    String[] configLines = new String[lineCount];
+    forEachChunk(lineCount, (start, end) -> {
+      renderChunk(templateLines, sources, blockScalarLines, secrets, configLines, start, end);
+      return null;
+    });
+    new ConfigValidator().validate(Arrays.asList(configLines),
+        index -> sources.get(index).toString());
+    List<ByteBuffer> buffers = forEachChunk(lineCount,
+        (start, end) -> encodeChunk(configLines, start, end));
+    writeConfig(buffers.toArray(new ByteBuffer[0]));
+  }
+
+  private <T> List<T> forEachChunk(int lineCount, ChunkTask<T> chunkTask)
+      throws IOException, SecretException {
+    List<T> results = new ArrayList<>();
+    if (lineCount <= CHUNK_LINES) {
+      results.add(chunkTask.run(0, lineCount));
+      return results;
+    }
+    List<ForkJoinTask<T>> tasks = new ArrayList<>();
+    for (int start = 0; start < lineCount; start += CHUNK_LINES) {
+      int first = start;
+      int end = Math.min(start + CHUNK_LINES, lineCount);
+      tasks.add(ForkJoinPool.commonPool().submit(() -> chunkTask.run(first, end)));
+    }
+    try {
+      for (ForkJoinTask<T> task : tasks) {
+        results.add(joinChunk(task));
+      }
+    } finally {
+      for (ForkJoinTask<T> task : tasks) {
+        task.cancel(true);
+      }
+    }
+    return results;
+  }
+
+  private static Set<String> findSecretNames(List<String> lines) {
+    Set<String> names = new LinkedHashSet<>();
+    for (String line : lines) {
+      Matcher secretMatcher = SECRET_NAME.matcher(line);
+      while (secretMatcher.find()) {
+        names.add(secretMatcher.group(1));
+      }
+    }
+    return names;
+  }
+
+  private String resolveSecret(String name) throws IOException, SecretException {
+    String secret;
+    try {
+      secret = cache.getSecret(secretPath, name);
+    } catch (FileNotFoundException error) {
+      throw new SecretException("Missing secret file: " + name);
+    }
+    if (secret == null || secret.isEmpty()) {
+      throw new SecretException("Undefined secret: " + name);
+    }
+    return secret;
+  }
+
+  private void renderChunk(List<String> templateLines, List<SourceLine> sources,
+      boolean[] blockScalarLines, Map<String, String> secrets, String[] configLines, int start,
+      int end) throws SecretException {
+    for (int index = start; index < end; index++) {
+      String line = templateLines.get(index);
+      Matcher secretMatcher = SECRET_NAME.matcher(line);
+      StringBuilder rendered = new StringBuilder();
+      int copied = 0;
+      while (secretMatcher.find()) {
+        String secret = secrets.get(secretMatcher.group(1));
+        String problem = blockScalarLines[index] ? null
+            : ConfigValidator.checkPlacement(line, secretMatcher.start(), secret);
+        if (problem != null) {
+          throw new SecretException(sources.get(index) + ": secret "
+              + secretMatcher.group(1) + " " + problem + "; quote it in the template.");
+        }
+        rendered.append(line, copied, secretMatcher.start()).append(secret);
+        copied = secretMatcher.end();
+      }
+      if (copied > 0) {
+        line = rendered.append(line, copied, line.length()).toString();
+      }
+      configLines[index] = line;
+    }
+  }
+
+  private static ByteBuffer encodeChunk(String[] configLines, int start, int end) {
+    StringBuilder text = new StringBuilder();
+    for (int index = start; index < end; index++) {
+      text.append(configLines[index]).append(System.lineSeparator());
+    }
+    return StandardCharsets.UTF_8.encode(CharBuffer.wrap(text));
+  }
+
+  private <T> T joinChunk(ForkJoinTask<T> task) throws IOException, SecretException {
+    try {
+      return task.get();
+    } catch (InterruptedException error) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while rendering " + templateFile.getAbsolutePath(), error);
+    } catch (ExecutionException error) {
+      // The pool wraps checked exceptions thrown by the chunk in runtime exceptions
+      for (Throwable cause = error.getCause(); cause != null; cause = cause.getCause()) {
+        if (cause instanceof SecretException secretError) {
+          throw secretError;
+        } else if (cause instanceof IOException ioError) {
+          throw ioError;
+        }
+      }
+      if (error.getCause() instanceof RuntimeException runtimeError) {
+        throw runtimeError;
+      }
+      throw new IOException(error.getCause().getMessage(), error.getCause());
+    }
+  }
+
+  private void expand(List<String> source, String sourceName, String indent,
+      List<String> expanded, List<SourceLine> sources, List<String> includeChain)
+      throws FileNotFoundException, IOException, TemplateException {
+    for (int index = 0; index < source.size(); index++) {
+      String line = source.get(index);
+      Matcher includeMatcher = INCLUDE_DIRECTIVE.matcher(line);
+      if (includeMatcher.matches()) {
+        String fragmentName = includeMatcher.group(2);
+        File fragmentFile = new File(fragmentPath, fragmentName);
+        if (!fragmentFile.exists()) {
+          throw new FileNotFoundException("Fragment file " + fragmentFile.getAbsolutePath() + " does not exist.");
+        }
+        if (includeChain.contains(fragmentName)) {
+          throw new TemplateException("Fragment includes itself: " + fragmentName);
+        }
+        includeChain.add(fragmentName);
+        expand(cache.getTemplate(fragmentFile), fragmentName, indent + includeMatcher.group(1),
+            expanded, sources, includeChain);
+        includeChain.remove(includeChain.size() - 1);
+      } else if (line.contains(INCLUDE_PREFIX)) {
+        throw new TemplateException("Include directive must be on its own line: " + line.strip());
+      } else {
+        expanded.add(line.isEmpty() ? line : indent + line);
+        sources.add(new SourceLine(sourceName, index + 1));
+      }
+    }
+  }
+
+  private void writeConfig(ByteBuffer[] buffers) throws IOException {
+    Path configPath = configFile.toPath();
+    long remaining = 0;
+    for (ByteBuffer buffer : buffers) {
+      remaining += buffer.remaining();
+    }
+    if (Files.exists(configPath) && !Files.isRegularFile(configPath)) {
+      // Named pipe or other special file; it cannot be created, truncated or replaced
+      try (FileChannel channel = FileChannel.open(configPath, StandardOpenOption.WRITE)) {
+        while (remaining > 0) {
+          remaining -= channel.write(buffers);
+        }
+      }
+      return;
+    }
+    // A unique name per render, so overlapping renders never touch each other's temporary file
+    Path tempPath = Files.createTempFile(configPath.toAbsolutePath().getParent(),
+        "." + configPath.getFileName(), ".tmp");
+    try {
+      try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.WRITE)) {
+        while (remaining > 0) {
+          remaining -= channel.write(buffers);
+        }
+      }
+      Files.move(tempPath, configPath, StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(tempPath);
+    }
   }
 
   /**
@@ -128,11 +372,25 @@ public class WildFlyConfigure {
    * @throws FileNotFoundException Template file, configuration file path or secrets path does not exist
    */
   public WildFlyConfigure(File templateFile, File configFile, File secretPath) throws FileNotFoundException {
+    this(templateFile, configFile, secretPath, new RenderCache());
+  }
+
+  /**
+   * New instance of WildFlyConfigure that reads the template and secrets through a shared cache.
+   * @param templateFile Path and name of the template file
+   * @param configFile Path and name of the configuration file to generate
+   * @param secretPath Path where the secrets are mounted
+   * @param cache Cache of template files and secrets shared with other instances
+   * @throws FileNotFoundException Template file, configuration file path or secrets path does not exist
+   */
+  public WildFlyConfigure(File templateFile, File configFile, File secretPath, RenderCache cache)
+      throws FileNotFoundException {
     if (templateFile.exists()) {
       this.templateFile = templateFile;
     } else {
       throw new FileNotFoundException("Template file " + templateFile.getAbsolutePath() + " does not exist.");
     }
+    fragmentPath = templateFile.getAbsoluteFile().getParentFile();
     if (configFile.getParent() != null) {
       if (configFile.getParentFile().exists()) {
         this.configFile = configFile;
@@ -147,6 +405,7 @@ public class WildFlyConfigure {
     } else {
       throw new FileNotFoundException("Secrets path " + secretPath.getAbsolutePath() + " does not exist.");
     }
+    this.cache = cache;
     dbServerAddress = "";
     dbUserName = "";
     dbUserPassword = "";
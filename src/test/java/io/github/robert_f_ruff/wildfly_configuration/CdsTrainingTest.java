@@ -0,0 +1,56 @@
+package io.github.robert_f_ruff.wildfly_configuration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+
+@TestInstance(Lifecycle.PER_CLASS)
+public class CdsTrainingTest {
+  private final ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+  private final ByteArrayOutputStream errorContent = new ByteArrayOutputStream();
+  private final PrintStream originalOut = System.out;
+  private final PrintStream originalError = System.err;
+  private final String templateFile = this.getClass().getResource("/wildfly_config.yml.tmpl").getPath();
+  private final String resourceFolder = new File(templateFile).getParent();
+  private final String configFile = new File(resourceFolder, "wildfly_config.yml").getAbsolutePath();
+  private final String secretsPath = new File(resourceFolder, "secrets").getAbsolutePath();
+
+  @BeforeAll
+  void setup() {
+    System.setOut(new PrintStream(outContent));
+    System.setErr(new PrintStream(errorContent));
+  }
+
+  @BeforeEach
+  void clean() {
+    outContent.reset();
+    errorContent.reset();
+    new File(configFile).delete();
+  }
+
+  @AfterAll
+  void tearDown() {
+    System.setOut(originalOut);
+    System.setErr(originalError);
+    new File(configFile).delete();
+  }
+
+  @Test
+  void testTrainingRun() {
+    String[] arguments = {templateFile, configFile, secretsPath};
+    CdsTraining.main(arguments);
+    assertTrue(new File(configFile).exists());
+    assertEquals("Successfully created " + configFile + "\n", outContent.toString());
+    assertEquals("", errorContent.toString());
+  }
+}
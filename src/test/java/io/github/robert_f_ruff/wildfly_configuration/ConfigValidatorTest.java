@@ -0,0 +1,170 @@
+package io.github.robert_f_ruff.wildfly_configuration;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.robert_f_ruff.wildfly_configuration.ConfigValidator.ValidationException;
+
+public class ConfigValidatorTest {
+  private final ConfigValidator validator = new ConfigValidator();
+
+  private String validate(String config) {
+    Exception exception = assertThrows(ValidationException.class,
+        () -> validator.validate(List.of(config.split("\n"))));
+    return exception.getMessage();
+  }
+
+  @Test
+  void testValidConfig() {
+    String config = """
+        # Generated configuration
+        wildfly-configuration:
+          subsystem:
+            datasources:
+              data-source:
+                Rules: # Rules data source
+                  connection-url: jdbc:mysql://data.localhost:8600/rules
+                  user-name: "db: user"
+                  password: 'it''s # secret'
+                  validate-on-match: true
+            logging:
+              logger:
+                io.github.robert_f_ruff.rules_engine:
+                  level: DEBUG
+                  handlers:
+                    - CONSOLE
+                    - name: FILE
+                      level: INFO
+              description: |
+                Any text: even # this
+            mail:
+              mail-session:
+                Rules Mail:
+                  password: pa#ss:word
+        """;
+    assertDoesNotThrow(() -> validator.validate(List.of(config.split("\n"))));
+  }
+
+  @Test
+  void testTags() {
+    String config = """
+        wildfly-configuration:
+          subsystem:
+            logging:
+              console-handler: !remove
+              logger:
+                io.github.robert_f_ruff.rules_engine:
+                  level: !undefine
+            undertow:
+              server:
+                default-server:
+                  http-listener:
+                    default: !undefine
+              statistics-enabled: !!bool true
+              handlers:
+                - !undefine
+          interface:
+            public: !undefine
+        """;
+    assertDoesNotThrow(() -> validator.validate(List.of(config.split("\n"))));
+  }
+
+  @Test
+  void testAnchorsAndAliases() {
+    String config = """
+        wildfly-configuration:
+          system-property:
+            rules_host: &rules_host
+              value: data.localhost
+            mail_port: &mail_port 3025
+            rules_host_copy: *rules_host
+            mail_port_copy: *mail_port
+        """;
+    assertDoesNotThrow(() -> validator.validate(List.of(config.split("\n"))));
+    assertEquals("Line 2: value of port has an anchor without a name; quote it.",
+        validate("wildfly-configuration:\n  port: & 3025"));
+  }
+
+  @Test
+  void testUnresolvedPlaceholder() {
+    assertEquals("Line 2: unresolved placeholder.", validate("""
+        wildfly-configuration:
+          host: ${mail_host}
+        """));
+  }
+
+  @Test
+  void testTabIndentation() {
+    assertEquals("Line 2: tab character in indentation.", validate("wildfly-configuration:\n\thost: localhost"));
+  }
+
+  @Test
+  void testUnexpectedIndentation() {
+    assertEquals("Line 3: indented under a key that already has a value.", validate("""
+        wildfly-configuration:
+          host: localhost
+            port: 3025
+        """));
+  }
+
+  @Test
+  void testNotAnEntry() {
+    assertEquals("Line 2: expected a 'key: value' entry.", validate("""
+        wildfly-configuration:
+          localhost
+        """));
+  }
+
+  @Test
+  void testUnquotedValues() {
+    assertEquals("Line 2: value of password contains ': ' or ends with ':'; quote it.",
+        validate("wildfly-configuration:\n  password: pass: word"));
+    assertEquals("Line 2: value of password contains ': ' or ends with ':'; quote it.",
+        validate("wildfly-configuration:\n  password: password:"));
+    assertEquals("Line 2: value of password refers to an undefined anchor; quote it.",
+        validate("wildfly-configuration:\n  password: *password"));
+    assertEquals("Line 2: value of password is not a well-formed alias; quote it.",
+        validate("wildfly-configuration:\n  password: *pass word"));
+    assertEquals("Line 2: value of password starts with the YAML indicator '@'; quote it.",
+        validate("wildfly-configuration:\n  password: @password"));
+    assertEquals("Line 2: value of password starts with the YAML indicator '-'; quote it.",
+        validate("wildfly-configuration:\n  password: - password"));
+    assertEquals("Line 2: value of password starts with '[' but is not a flow collection; quote it.",
+        validate("wildfly-configuration:\n  password: [password"));
+    assertEquals("Line 2: value of password has unbalanced quotes.",
+        validate("wildfly-configuration:\n  password: \"pass\"word\""));
+    assertEquals("Line 2: value of password is a comment; quote values that start with '#'.",
+        validate("wildfly-configuration:\n  password: #password\n  user-name: rules"));
+  }
+
+  @Test
+  void testMissingConnectionUrl() {
+    assertEquals("Data source Rules does not define connection-url.", validate("""
+        wildfly-configuration:
+          subsystem:
+            datasources:
+              data-source:
+                Rules:
+                  jndi-name: Rules
+        """));
+    String config = """
+        wildfly-configuration:
+          subsystem:
+            datasources:
+              data-source:
+                ExampleDS: !remove
+                Legacy: !undefine
+                Rules:
+                  min-pool-size: 5
+        """;
+    assertDoesNotThrow(() -> validator.validate(List.of(config.split("\n"))));
+    assertDoesNotThrow(() -> validator.validate(List.of(
+        "wildfly-configuration:", "  subsystem:", "    datasources:",
+        "      data-source: { ExampleDS: !remove }")));
+  }
+}
@@ -0,0 +1,86 @@
+package io.github.robert_f_ruff.wildfly_configuration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.sql.Connection;
+import java.sql.DriverManager;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.mockito.MockedStatic;
+
+import io.github.robert_f_ruff.wildfly_configuration.ConfigureAgent.AgentException;
+import io.github.robert_f_ruff.wildfly_configuration.WildFlyConfigure.SecretException;
+
+@TestInstance(Lifecycle.PER_CLASS)
+public class ConfigureAgentTest {
+  private final ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+  private final ByteArrayOutputStream errorContent = new ByteArrayOutputStream();
+  private final PrintStream originalOut = System.out;
+  private final PrintStream originalError = System.err;
+  private final String templateFile = this.getClass().getResource("/wildfly_config.yml.tmpl").getPath();
+  private final String resourceFolder = new File(templateFile).getParent();
+  private final String configFile = new File(resourceFolder, "wildfly_config.yml").getAbsolutePath();
+  private final String secretsPath = new File(resourceFolder, "secrets").getAbsolutePath();
+
+  @BeforeAll
+  void setup() {
+    System.setOut(new PrintStream(outContent));
+    System.setErr(new PrintStream(errorContent));
+  }
+
+  @BeforeEach
+  void clean() {
+    outContent.reset();
+    errorContent.reset();
+    new File(configFile).delete();
+  }
+
+  @AfterAll
+  void tearDown() {
+    System.setOut(originalOut);
+    System.setErr(originalError);
+    new File(configFile).delete();
+  }
+
+  @Test
+  void testValidRun() {
+    Connection connection = mock(Connection.class);
+    try (MockedStatic<DriverManager> mocked = mockStatic(DriverManager.class)) {
+      mocked.when(() -> DriverManager.getConnection(anyString(), anyString(), anyString())).thenReturn(connection);
+      ConfigureAgent.premain(String.join(",", templateFile, configFile, secretsPath));
+    }
+    assertTrue(new File(configFile).exists());
+    assertEquals("Successfully created " + configFile
+        + "\nVerifying connection to database:\nConnection verified!\n", outContent.toString());
+    assertEquals("", errorContent.toString());
+  }
+
+  @Test
+  void testMissingSecret() {
+    String badTemplate = this.getClass().getResource("/missing_wildfly_config.yml.tmpl").getPath();
+    Exception exception = assertThrows(AgentException.class,
+        () -> ConfigureAgent.premain(String.join(",", badTemplate, configFile, secretsPath)));
+    assertEquals("Missing secret file: db_user", exception.getMessage());
+    assertEquals(SecretException.class, exception.getCause().getClass());
+    assertEquals("Missing secret file: db_user\n", errorContent.toString());
+  }
+
+  @Test
+  void testMissingArguments() {
+    Exception exception = assertThrows(AgentException.class, () -> ConfigureAgent.premain(null));
+    assertEquals("Expected 3 or 4 agent arguments but found 1.", exception.getMessage());
+  }
+}
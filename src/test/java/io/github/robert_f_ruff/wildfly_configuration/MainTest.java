@@ -1,14 +1,18 @@
 package io.github.robert_f_ruff.wildfly_configuration;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockStatic;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
 import java.io.PrintStream;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.Connection;
 import java.sql.DriverManager;
 
@@ -73,6 +77,25 @@ public class MainTest {
     assertEquals("", errorContent.toString());
   }
 
+  @Test
+  void testIncludeRun() throws IOException {
+    String templateFile = this.getClass().getResource("/include_wildfly_config.yml.tmpl").getPath();
+    String resourceFolder = new File(templateFile).getParent();
+    String configFile = new File(resourceFolder, configFileName).getAbsolutePath();
+    String secretsPath = new File(resourceFolder, "secrets").getAbsolutePath();
+    String fragmentPath = new File(resourceFolder, "fragments").getAbsolutePath();
+    String[] arguments = {templateFile, configFile, secretsPath, fragmentPath};
+    Connection connection = mock(Connection.class);
+    try (MockedStatic<DriverManager> mocked = mockStatic(DriverManager.class)) {
+      mocked.when(() -> DriverManager.getConnection(anyString(), anyString(), anyString())).thenReturn(connection);
+      Main.main(arguments);
+    }
+    assertEquals("Successfully created " + configFile
+        + "\nVerifying connection to database:\nConnection verified!\n", outContent.toString());
+    assertEquals("", errorContent.toString());
+    assertTrue(Files.readString(Path.of(configFile)).contains("connection-url: jdbc:mysql://data.localhost:8600/rules"));
+  }
+
   @Test
   void testInvalidRun() {
     String templateFile = this.getClass().getResource("/missing_wildfly_config.yml.tmpl").getPath();
@@ -89,7 +112,7 @@ public class MainTest {
         NAME: WildFlyConfigure
 
         SYNOPSIS
-            java -jar WildFlyConfigure.jar <template_file> <output_file> <secrets_path>
+            java -jar WildFlyConfigure.jar <template_file> <output_file> <secrets_path> [<fragment_path>]
 
         DESCRIPTION
             Populates a WildFly configuration YAML file template with the defined secrets.
@@ -97,6 +120,8 @@ public class MainTest {
             <template_file>: File name and path to the template file.
             <output_file>: File name and path to place the populated configuration file.
             <secrets_path>: Path where the secrets files are mounted.
+            <fragment_path>: Optional path of the included fragment files; defaults to the
+                             template file's path.
 
         """;
     assertEquals(output, outContent.toString());
@@ -0,0 +1,47 @@
+package io.github.robert_f_ruff.wildfly_configuration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class RenderCacheTest {
+  @TempDir
+  Path tempFolder;
+
+  @Test
+  void testRotatedSecret() throws IOException {
+    RenderCache cache = new RenderCache();
+    File secret = Files.writeString(tempFolder.resolve("db_user_password"), "first").toFile();
+    secret.setLastModified(1_000_000L);
+    assertEquals("first", cache.getSecret(tempFolder.toFile(), "db_user_password"));
+    Files.writeString(secret.toPath(), "second");
+    secret.setLastModified(2_000_000L);
+    assertEquals("second", cache.getSecret(tempFolder.toFile(), "db_user_password"));
+    Files.writeString(secret.toPath(), "");
+    secret.setLastModified(3_000_000L);
+    assertNull(cache.getSecret(tempFolder.toFile(), "db_user_password"));
+    Files.delete(secret.toPath());
+    assertThrows(FileNotFoundException.class, () -> cache.getSecret(tempFolder.toFile(), "db_user_password"));
+  }
+
+  @Test
+  void testModifiedTemplate() throws IOException {
+    RenderCache cache = new RenderCache();
+    File template = Files.writeString(tempFolder.resolve("wildfly_config.yml.tmpl"), "first\n").toFile();
+    template.setLastModified(1_000_000L);
+    assertEquals(List.of("first"), cache.getTemplate(template));
+    Files.writeString(template.toPath(), "second\n");
+    template.setLastModified(2_000_000L);
+    assertEquals(List.of("second"), cache.getTemplate(template));
+  }
+}
@@ -0,0 +1,150 @@
+package io.github.robert_f_ruff.wildfly_configuration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.MockedStatic;
+
+import io.github.robert_f_ruff.wildfly_configuration.RenderClient.DaemonException;
+
+public class RenderDaemonTest {
+  private final PrintStream originalOut = System.out;
+  String templateFile = this.getClass().getResource("/wildfly_config.yml.tmpl").getPath();
+  String resourceFolder = new File(templateFile).getParent();
+  File secretsPath = new File(resourceFolder, "secrets");
+
+  @TempDir
+  Path tempFolder;
+
+  RenderDaemon daemon;
+  Thread daemonThread;
+
+  @BeforeEach
+  void start() throws Exception {
+    daemon = new RenderDaemon(tempFolder.resolve("render.sock"), new DriverFactory());
+    daemonThread = new Thread(daemon::serve);
+    daemonThread.start();
+  }
+
+  @AfterEach
+  void stop() throws Exception {
+    daemon.close();
+    daemonThread.join();
+    System.setOut(originalOut);
+  }
+
+  @Test
+  void testRender() throws Exception {
+    File output = tempFolder.resolve("wildfly_config.yml").toFile();
+    String response = RenderClient.send(tempFolder.resolve("render.sock"), "render",
+        new File(templateFile), output, secretsPath, null);
+    assertEquals("Successfully created " + output.getAbsolutePath(), response);
+    assertTrue(output.exists());
+  }
+
+  @Test
+  void testMissingSecret() {
+    File badTemplate = new File(this.getClass().getResource("/missing_wildfly_config.yml.tmpl").getPath());
+    File output = tempFolder.resolve("wildfly_config.yml").toFile();
+    Exception exception = assertThrows(DaemonException.class, () -> RenderClient.send(
+        tempFolder.resolve("render.sock"), "render", badTemplate, output, secretsPath, null));
+    assertEquals("Missing secret file: db_user", exception.getMessage());
+  }
+
+  @Test
+  void testUnknownCommand() {
+    File output = tempFolder.resolve("wildfly_config.yml").toFile();
+    Exception exception = assertThrows(DaemonException.class, () -> RenderClient.send(
+        tempFolder.resolve("render.sock"), "restart", new File(templateFile), output, secretsPath, null));
+    assertEquals("Unknown command: restart", exception.getMessage());
+    assertFalse(output.exists());
+  }
+
+  @Test
+  void testRenderWithFragments() throws Exception {
+    File includeTemplate = new File(this.getClass().getResource("/include_wildfly_config.yml.tmpl").getPath());
+    File output = tempFolder.resolve("wildfly_config.yml").toFile();
+    String response = RenderClient.send(tempFolder.resolve("render.sock"), "render",
+        includeTemplate, output, secretsPath, new File(resourceFolder, "fragments"));
+    assertEquals("Successfully created " + output.getAbsolutePath(), response);
+    assertTrue(output.exists());
+  }
+
+  @Test
+  void testWait() throws Exception {
+    ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+    System.setOut(new PrintStream(outContent));
+    File output = tempFolder.resolve("wildfly_config.yml").toFile();
+    Connection connection = mock(Connection.class);
+    try (MockedStatic<DriverManager> mocked = mockStatic(DriverManager.class)) {
+      mocked.when(() -> DriverManager.getConnection(anyString(), anyString(), anyString())).thenReturn(connection);
+      String response = daemon.process(String.join("\t", "wait", templateFile,
+          output.getAbsolutePath(), secretsPath.getAbsolutePath()));
+      assertEquals("Successfully created " + output.getAbsolutePath()
+          + " and verified connection to database", response);
+    }
+    assertEquals("Verifying connection to database:\nConnection verified!\n", outContent.toString());
+  }
+
+  @Test
+  void testWaitOverSocket() throws Exception {
+    ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+    System.setOut(new PrintStream(outContent));
+    File output = tempFolder.resolve("wildfly_config.yml").toFile();
+    // The daemon answers on its own thread, where a static mock of DriverManager has no effect
+    List<Driver> drivers = Collections.list(DriverManager.getDrivers());
+    Driver driver = mock(Driver.class);
+    when(driver.acceptsURL(anyString())).thenReturn(true);
+    when(driver.connect(anyString(), any())).thenReturn(mock(Connection.class));
+    for (Driver registered : drivers) {
+      DriverManager.deregisterDriver(registered);
+    }
+    DriverManager.registerDriver(driver);
+    try (SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+      channel.connect(UnixDomainSocketAddress.of(tempFolder.resolve("render.sock")));
+      RenderDaemon.writeLine(channel, String.join("\t", "wait", templateFile,
+          output.getAbsolutePath(), secretsPath.getAbsolutePath()));
+      // Like socat at the end of its input, half-close the connection and wait for the answer
+      channel.shutdownOutput();
+      assertEquals("OK Successfully created " + output.getAbsolutePath()
+          + " and verified connection to database", RenderDaemon.readLine(channel));
+    } finally {
+      DriverManager.deregisterDriver(driver);
+      for (Driver registered : drivers) {
+        DriverManager.registerDriver(registered);
+      }
+    }
+    assertEquals("Verifying connection to database:\nConnection verified!\n", outContent.toString());
+  }
+
+  @Test
+  void testClose() throws Exception {
+    daemon.close();
+    daemonThread.join();
+    assertFalse(tempFolder.resolve("render.sock").toFile().exists());
+  }
+}
@@ -0,0 +1,65 @@
+package io.github.robert_f_ruff.wildfly_configuration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+
+@TestInstance(Lifecycle.PER_CLASS)
+public class RenderTest {
+  private final ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+  private final ByteArrayOutputStream errorContent = new ByteArrayOutputStream();
+  private final PrintStream originalOut = System.out;
+  private final PrintStream originalError = System.err;
+  private final String templateFile = this.getClass().getResource("/wildfly_config.yml.tmpl").getPath();
+  private final String resourceFolder = new File(templateFile).getParent();
+  private final String configFile = new File(resourceFolder, "wildfly_config.yml").getAbsolutePath();
+  private final String secretsPath = new File(resourceFolder, "secrets").getAbsolutePath();
+
+  @BeforeAll
+  void setup() {
+    System.setOut(new PrintStream(outContent));
+    System.setErr(new PrintStream(errorContent));
+  }
+
+  @BeforeEach
+  void clean() {
+    outContent.reset();
+    errorContent.reset();
+    new File(configFile).delete();
+  }
+
+  @AfterAll
+  void tearDown() {
+    System.setOut(originalOut);
+    System.setErr(originalError);
+    new File(configFile).delete();
+  }
+
+  @Test
+  void testValidRun() {
+    String[] arguments = {templateFile, configFile, secretsPath};
+    Render.main(arguments);
+    assertTrue(new File(configFile).exists());
+    assertEquals("Successfully created " + configFile + "\n", outContent.toString());
+    assertEquals("", errorContent.toString());
+  }
+
+  @Test
+  void testInvalidRun() {
+    String badTemplate = this.getClass().getResource("/missing_wildfly_config.yml.tmpl").getPath();
+    String[] arguments = {badTemplate, configFile, secretsPath};
+    Render.main(arguments);
+    assertTrue(outContent.toString().startsWith("NAME: Render\n"));
+    assertEquals("Missing secret file: db_user\n", errorContent.toString());
+  }
+}
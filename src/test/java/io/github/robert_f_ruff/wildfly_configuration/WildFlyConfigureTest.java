@@ -5,16 +5,36 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
 
+import io.github.robert_f_ruff.wildfly_configuration.ConfigValidator.ValidationException;
 import io.github.robert_f_ruff.wildfly_configuration.WildFlyConfigure.SecretException;
+import io.github.robert_f_ruff.wildfly_configuration.WildFlyConfigure.TemplateException;
 
 public class WildFlyConfigureTest {
   String templateFile = this.getClass().getResource("/wildfly_config.yml.tmpl").getPath();
@@ -31,7 +51,7 @@ public class WildFlyConfigureTest {
   }
   
   @Test
-  void testValidRun() throws IOException, SecretException {
+  void testValidRun() throws IOException, SecretException, TemplateException, ValidationException {
     File output = new File(configFile);
     assertFalse(output.exists());
     WildFlyConfigure configure = new WildFlyConfigure(new File(templateFile), output, new File(resourceFolder, "/secrets"));
@@ -74,12 +94,224 @@ public class WildFlyConfigureTest {
   }
 
   @Test
-  void testUndefinedSecret() throws FileNotFoundException {
+  void testUndefinedSecret(@TempDir Path tempFolder) throws IOException {
     File badTemplate = new File(this.getClass().getResource("/undefined_wildfly_config.yml.tmpl").getPath());
     File output = new File(configFile);
     assertFalse(output.exists());
     WildFlyConfigure configure = new WildFlyConfigure(badTemplate, output, new File(resourceFolder, "/secrets"));
     Exception exception = assertThrows(SecretException.class, () -> configure.substitute());
     assertEquals("Undefined secret: bad_secret", exception.getMessage());
+    Path blankTemplate = Files.writeString(tempFolder.resolve("blank.yml.tmpl"),
+        "wildfly-configuration:\n  password: ${blank_secret}\n");
+    WildFlyConfigure blankConfigure = new WildFlyConfigure(blankTemplate.toFile(), output, new File(resourceFolder, "/secrets"));
+    exception = assertThrows(SecretException.class, () -> blankConfigure.substitute());
+    assertEquals("Undefined secret: blank_secret", exception.getMessage());
+  }
+
+  @Test
+  void testOverwriteConfigFile() throws IOException, SecretException, TemplateException, ValidationException {
+    File output = new File(configFile);
+    Files.writeString(output.toPath(), "stale\n".repeat(1000));
+    WildFlyConfigure configure = new WildFlyConfigure(new File(templateFile), output, new File(resourceFolder, "/secrets"));
+    configure.substitute();
+    String config = Files.readString(output.toPath());
+    assertFalse(config.contains("stale"));
+    assertTrue(config.contains("connection-url: jdbc:mysql://data.localhost:8600/rules"));
+  }
+
+  @Test
+  void testNoOutputOnError() throws FileNotFoundException {
+    File badTemplate = new File(this.getClass().getResource("/missing_wildfly_config.yml.tmpl").getPath());
+    File output = new File(configFile);
+    WildFlyConfigure configure = new WildFlyConfigure(badTemplate, output, new File(resourceFolder, "/secrets"));
+    assertThrows(SecretException.class, () -> configure.substitute());
+    assertFalse(output.exists());
+  }
+
+  @Test
+  void testExistingFileRemovedOnError(@TempDir Path tempFolder) throws IOException {
+    File badTemplate = new File(this.getClass().getResource("/missing_wildfly_config.yml.tmpl").getPath());
+    Path output = Files.writeString(tempFolder.resolve("wildfly_config.yml"), "password: previous_run\n");
+    WildFlyConfigure configure = new WildFlyConfigure(badTemplate, output.toFile(), new File(resourceFolder, "/secrets"));
+    assertThrows(SecretException.class, () -> configure.substitute());
+    assertFalse(Files.exists(output));
+    try (var files = Files.list(tempFolder)) {
+      assertEquals(0, files.count());
+    }
+  }
+
+  @Test
+  void testNoTemporaryFileLeft(@TempDir Path tempFolder) throws IOException, SecretException, TemplateException, ValidationException {
+    Path output = Files.writeString(tempFolder.resolve("wildfly_config.yml"), "password: previous_run\n");
+    WildFlyConfigure configure = new WildFlyConfigure(new File(templateFile), output.toFile(), new File(resourceFolder, "/secrets"));
+    configure.substitute();
+    assertTrue(Files.readString(output).contains("password: dbuser_Password"));
+    try (var files = Files.list(tempFolder)) {
+      assertEquals(1, files.count());
+    }
+  }
+
+  @Test
+  void testConcurrentRenders(@TempDir Path tempFolder) throws Exception {
+    Path output = tempFolder.resolve("wildfly_config.yml");
+    // Temporary file of a render still in progress in this JVM
+    Path inProgress = Files.writeString(tempFolder.resolve(".wildfly_config.yml."
+        + ProcessHandle.current().pid() + ".tmp"), "password: in_progress\n");
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      for (int run = 0; run < 20; run++) {
+        CyclicBarrier start = new CyclicBarrier(8);
+        List<Future<Void>> renders = new ArrayList<>();
+        for (int index = 0; index < 8; index++) {
+          WildFlyConfigure configure = new WildFlyConfigure(new File(templateFile), output.toFile(), new File(resourceFolder, "/secrets"));
+          renders.add(executor.submit(() -> {
+            start.await();
+            configure.substitute();
+            return null;
+          }));
+        }
+        for (Future<Void> render : renders) {
+          render.get();
+        }
+        assertTrue(Files.readString(output).contains("password: dbuser_Password"));
+        assertEquals("password: in_progress\n", Files.readString(inProgress));
+        try (var files = Files.list(tempFolder)) {
+          assertEquals(2, files.count());
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  @EnabledOnOs(OS.LINUX)
+  void testNamedPipe(@TempDir Path tempFolder) throws Exception {
+    Path pipe = tempFolder.resolve("wildfly_config.yml");
+    assertEquals(0, new ProcessBuilder("mkfifo", pipe.toString()).start().waitFor());
+    CompletableFuture<String> reader = CompletableFuture.supplyAsync(() -> {
+      try {
+        return new String(Files.readAllBytes(pipe), StandardCharsets.UTF_8);
+      } catch (IOException error) {
+        return error.getMessage();
+      }
+    });
+    WildFlyConfigure configure = new WildFlyConfigure(new File(templateFile), pipe.toFile(), new File(resourceFolder, "/secrets"));
+    configure.substitute();
+    assertTrue(reader.get().contains("connection-url: jdbc:mysql://data.localhost:8600/rules"));
+    assertFalse(Files.isRegularFile(pipe));
+  }
+
+  @Test
+  void testIncludeFragments(@TempDir Path tempFolder) throws IOException, SecretException, TemplateException, ValidationException {
+    File includeTemplate = new File(this.getClass().getResource("/include_wildfly_config.yml.tmpl").getPath());
+    File composed = tempFolder.resolve("composed.yml").toFile();
+    File expected = tempFolder.resolve("expected.yml").toFile();
+    RenderCache cache = new RenderCache();
+    WildFlyConfigure configure = new WildFlyConfigure(includeTemplate, composed, new File(resourceFolder, "/secrets"), cache);
+    configure.setFragmentPath(new File(resourceFolder, "/fragments"));
+    configure.substitute();
+    new WildFlyConfigure(new File(templateFile), expected, new File(resourceFolder, "/secrets"), cache).substitute();
+    assertEquals(Files.readString(expected.toPath()), Files.readString(composed.toPath()));
+    assertEquals("db_user", configure.getdbUserName());
+  }
+
+  @Test
+  void testCircularInclude() throws FileNotFoundException {
+    File circularTemplate = new File(this.getClass().getResource("/circular_wildfly_config.yml.tmpl").getPath());
+    WildFlyConfigure configure = new WildFlyConfigure(circularTemplate, new File(configFile), new File(resourceFolder, "/secrets"));
+    configure.setFragmentPath(new File(resourceFolder, "/fragments"));
+    Exception exception = assertThrows(TemplateException.class, () -> configure.substitute());
+    assertEquals("Fragment includes itself: circular.yml.tmpl", exception.getMessage());
+  }
+
+  @Test
+  void testMissingFragment() throws FileNotFoundException {
+    File includeTemplate = new File(this.getClass().getResource("/include_wildfly_config.yml.tmpl").getPath());
+    WildFlyConfigure configure = new WildFlyConfigure(includeTemplate, new File(configFile), new File(resourceFolder, "/secrets"));
+    Exception exception = assertThrows(FileNotFoundException.class, () -> configure.substitute());
+    assertEquals("Fragment file " + new File(resourceFolder, "datasource.yml.tmpl").getAbsolutePath() + " does not exist.", exception.getMessage());
+    final File BAD = new File("non_existent");
+    exception = assertThrows(FileNotFoundException.class, () -> configure.setFragmentPath(BAD));
+    assertEquals("Fragment path " + BAD.getAbsolutePath() + " does not exist.", exception.getMessage());
+  }
+
+  @Test
+  void testInvalidConfig(@TempDir Path tempFolder) throws IOException {
+    Path badTemplate = Files.writeString(tempFolder.resolve("bad.yml.tmpl"),
+        "wildfly-configuration:\n  system-property:\n    mail_host:\n      value: [${mail_host}\n");
+    File output = tempFolder.resolve("bad.yml").toFile();
+    WildFlyConfigure configure = new WildFlyConfigure(badTemplate.toFile(), output, new File(resourceFolder, "/secrets"));
+    Exception exception = assertThrows(ValidationException.class, () -> configure.substitute());
+    assertEquals("bad.yml.tmpl:4: value of value starts with '[' but is not a flow collection; quote it.", exception.getMessage());
+    assertFalse(output.exists());
+  }
+
+  @Test
+  void testErrorInFragment(@TempDir Path tempFolder) throws IOException {
+    Path template = Files.writeString(tempFolder.resolve("main.yml.tmpl"),
+        "wildfly-configuration:\n  system-property:\n    ${include:property.yml.tmpl}\n");
+    Path fragment = Files.writeString(tempFolder.resolve("property.yml.tmpl"),
+        "rules_engine_Reload_Rules_Key:\n  value: ${colon_secret}\n");
+    File output = tempFolder.resolve("wildfly_config.yml").toFile();
+    WildFlyConfigure configure = new WildFlyConfigure(template.toFile(), output, new File(resourceFolder, "/secrets"));
+    Exception exception = assertThrows(SecretException.class, () -> configure.substitute());
+    assertEquals("property.yml.tmpl:2: secret colon_secret contains ': '; quote it in the template.", exception.getMessage());
+    Files.writeString(fragment, "rules_engine_Reload_Rules_Key:\n  value: \"${colon_secret}\"\n    extra: true\n");
+    exception = assertThrows(ValidationException.class, () -> configure.substitute());
+    assertEquals("property.yml.tmpl:3: indented under a key that already has a value.", exception.getMessage());
+    assertFalse(output.exists());
+  }
+
+  @Test
+  void testUnquotedSecret() throws FileNotFoundException {
+    File badTemplate = new File(this.getClass().getResource("/quoting_wildfly_config.yml.tmpl").getPath());
+    File output = new File(configFile);
+    WildFlyConfigure configure = new WildFlyConfigure(badTemplate, output, new File(resourceFolder, "/secrets"));
+    Exception exception = assertThrows(SecretException.class, () -> configure.substitute());
+    assertEquals("quoting_wildfly_config.yml.tmpl:4: secret colon_secret contains ': '; quote it in the template.", exception.getMessage());
+    assertFalse(output.exists());
+    File hashTemplate = new File(this.getClass().getResource("/hash_wildfly_config.yml.tmpl").getPath());
+    WildFlyConfigure hashConfigure = new WildFlyConfigure(hashTemplate, output, new File(resourceFolder, "/secrets"));
+    exception = assertThrows(SecretException.class, () -> hashConfigure.substitute());
+    assertEquals("hash_wildfly_config.yml.tmpl:6: secret hash_secret contains ' #'; quote it in the template.", exception.getMessage());
+    assertFalse(output.exists());
+  }
+
+  @Test
+  void testLargeTemplate(@TempDir Path tempFolder) throws IOException, SecretException, TemplateException, ValidationException {
+    StringBuilder template = new StringBuilder("wildfly-configuration:\n");
+    StringBuilder expected = new StringBuilder("wildfly-configuration:\n");
+    for (int index = 0; index < 10000; index++) {
+      template.append("  property_").append(index).append(": ${mail_host}:${mail_host_port}/").append(index).append("\n");
+      expected.append("  property_").append(index).append(": email.localhost:3025/").append(index).append(System.lineSeparator());
+    }
+    template.append("  db: ${db_host}\n");
+    expected.append("  db: data.localhost").append(System.lineSeparator());
+    Path largeTemplate = Files.writeString(tempFolder.resolve("large.yml.tmpl"), template);
+    Path output = tempFolder.resolve("large.yml");
+    RenderCache cache = spy(new RenderCache());
+    WildFlyConfigure configure = new WildFlyConfigure(largeTemplate.toFile(), output.toFile(), new File(resourceFolder, "/secrets"), cache);
+    configure.substitute();
+    assertEquals(expected.toString(), Files.readString(output));
+    assertEquals("data.localhost", configure.getdbServerAddress());
+    verify(cache, times(1)).getSecret(any(File.class), eq("mail_host"));
+    verify(cache, times(1)).getSecret(any(File.class), eq("mail_host_port"));
+  }
+
+  @Test
+  void testLargeTemplateMissingSecret(@TempDir Path tempFolder) throws IOException {
+    StringBuilder template = new StringBuilder("wildfly-configuration:\n");
+    for (int index = 0; index < 10000; index++) {
+      template.append("  property_").append(index).append(": ${mail_host}\n");
+    }
+    template.append("  user-name: ${db_user}\n");
+    template.append("  password: ${bad_secret}\n");
+    Path largeTemplate = Files.writeString(tempFolder.resolve("large.yml.tmpl"), template);
+    Path output = tempFolder.resolve("large.yml");
+    WildFlyConfigure configure = new WildFlyConfigure(largeTemplate.toFile(), output.toFile(), new File(resourceFolder, "/secrets"));
+    Exception exception = assertThrows(SecretException.class, () -> configure.substitute());
+    assertEquals("Missing secret file: db_user", exception.getMessage());
+    assertFalse(Files.exists(output));
   }
 }